@@ -8,4 +8,5 @@ import lombok.Setter;
 public class Site {
     private String url;
     private String name;
+    private int concurrency; // Доля потоков обхода для сайта (0 — поровну между сайтами)
 }
@@ -0,0 +1,42 @@
+package searchengine.config;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// ddl-auto=update не удаляет индексы: до появления поколений site.url был уникальным,
+// и старый индекс не даёт создать новое поколение уже проиндексированного сайта
+@Component
+@DependsOn("entityManagerFactory")
+public class SiteSchemaMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(SiteSchemaMigration.class);
+
+    // Индексы таблицы site, построенные только по столбцу url (уникальный и idx_url)
+    private static final String URL_ONLY_INDEXES = """
+            SELECT index_name FROM information_schema.statistics
+            WHERE table_schema = DATABASE() AND table_name = 'site'
+            GROUP BY index_name
+            HAVING COUNT(*) = 1 AND MAX(column_name = 'url') = 1
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SiteSchemaMigration(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void dropUrlOnlyIndexes() {
+        List<String> indexes = jdbcTemplate.queryForList(URL_ONLY_INDEXES, String.class);
+        for (String index : indexes) {
+            jdbcTemplate.execute("ALTER TABLE site DROP INDEX `" + index.replace("`", "``") + "`");
+            logger.info("Удалён устаревший индекс таблицы site: {}", index);
+        }
+    }
+}
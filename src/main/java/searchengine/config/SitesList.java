@@ -13,4 +13,7 @@ import java.util.List;
 @ConfigurationProperties(prefix = "indexing-settings")
 public class SitesList {
     private List<Site> sites;
+    private int crawlDelayMin = 500;  // Минимальная задержка между запросами, мс
+    private int crawlDelayMax = 5000; // Максимальная задержка между запросами, мс
+    private int maxConcurrency = 0;   // Общий предел потоков обхода для всех сайтов (0 — по числу ядер)
 }
@@ -0,0 +1,30 @@
+package searchengine.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+// Указатель на действующее поколение сайта: переключается одной операцией UPDATE после успешной индексации
+@Entity
+@Table(name = "live_site")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class LiveSite {
+
+    @Id
+    @Column(length = 255)
+    private String url;
+
+    @OneToOne(optional = false)
+    @JoinColumn(name = "site_id", nullable = false, foreignKey = @ForeignKey(name = "fk_live_site_site"))
+    private Site site;
+
+    @Override
+    public String toString() {
+        return "LiveSite{" +
+                "url='" + url + '\'' +
+                ", siteId=" + (site != null ? site.getId() : null) +
+                '}';
+    }
+}
@@ -7,7 +7,8 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "site", indexes = @Index(name = "idx_url", columnList = "url"))
+@Table(name = "site",
+        uniqueConstraints = @UniqueConstraint(name = "uk_site_url_generation", columnNames = {"url", "generation"}))
 @Getter
 @Setter
 @NoArgsConstructor
@@ -28,9 +29,13 @@ public class Site {
     @Column(name = "last_error", columnDefinition = "TEXT")
     private String lastError;
 
-    @Column(length = 255, nullable = false, unique = true)
+    @Column(length = 255, nullable = false)
     private String url;
 
+    // Номер переиндексации: новое поколение строится рядом с действующим (см. LiveSite)
+    @Column(nullable = false)
+    private int generation;
+
     @Column(length = 255, nullable = false)
     private String name;
 
@@ -44,6 +49,7 @@ public class Site {
                 ", status=" + status +
                 ", statusTime=" + statusTime +
                 ", url='" + url + '\'' +
+                ", generation=" + generation +
                 ", name='" + name + '\'' +
                 '}';
     }
@@ -0,0 +1,17 @@
+package searchengine.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import searchengine.model.LiveSite;
+import searchengine.model.Site;
+
+public interface LiveSiteRepository extends JpaRepository<LiveSite, String> {
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE LiveSite l SET l.site = :site WHERE l.url = :url")
+    int switchTo(@Param("url") String url, @Param("site") Site site);
+}
@@ -12,8 +12,8 @@ public interface PageRepository extends JpaRepository<Page, Integer> {
 
     @Modifying
     @Transactional
-    @Query("DELETE FROM Page p WHERE p.site.id = :siteId")
-    int deleteAllBySiteId(@Param("siteId") Integer siteId);
+    @Query(value = "DELETE FROM page WHERE site_id = :siteId LIMIT :limit", nativeQuery = true)
+    int deleteChunkBySiteId(@Param("siteId") Integer siteId, @Param("limit") int limit);
 
     @Query("SELECT p FROM Page p WHERE p.path = :path AND p.site.id = :siteId")
     Page findByPathAndSiteId(@Param("path") String path, @Param("siteId") Integer siteId);
@@ -3,12 +3,22 @@ package searchengine.repositories;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 import searchengine.model.Site;
 
+import java.util.List;
+
 public interface SiteRepository extends JpaRepository<Site, Integer> {
 
-    Site findByUrl(String url);
+    List<Site> findAllByUrl(String url);
+
+    // Действующее поколение сайта — его и должны читать поиск и статистика
+    @Query("SELECT l.site FROM LiveSite l WHERE l.url = :url")
+    Site findLiveByUrl(@Param("url") String url);
+
+    @Query("SELECT COALESCE(MAX(s.generation), 0) FROM Site s WHERE s.url = :url")
+    int findMaxGeneration(@Param("url") String url);
 
     Site findByName(String name);
 
@@ -0,0 +1,54 @@
+package searchengine.services;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+@Component
+public class CrawlMetrics {
+
+    private static final int MAX_TRACKED_MILLIS = 60_000; // Всё, что дольше, попадает в последнюю ячейку
+
+    private final AtomicLong persistedPages = new AtomicLong();
+    private volatile AtomicLongArray latencyHistogram; // Создаётся только при замерах (нагрузочный тест)
+
+    // Начинает новый замер с нуля; без вызова метрики не собираются
+    public void enable() {
+        persistedPages.set(0);
+        latencyHistogram = new AtomicLongArray(MAX_TRACKED_MILLIS + 1);
+    }
+
+    public void recordPersisted(long fetchStartedNanos) {
+        AtomicLongArray latencyHistogram = this.latencyHistogram;
+        if (latencyHistogram == null) {
+            return;
+        }
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - fetchStartedNanos);
+        latencyHistogram.incrementAndGet((int) Math.min(millis, MAX_TRACKED_MILLIS));
+        persistedPages.incrementAndGet();
+    }
+
+    public long getPersistedPages() {
+        return persistedPages.get();
+    }
+
+    // Задержка от загрузки до сохранения страницы для заданного перцентиля (0..100), мс
+    public long latencyPercentileMillis(double percentile) {
+        AtomicLongArray latencyHistogram = this.latencyHistogram;
+        long total = persistedPages.get();
+        if (latencyHistogram == null || total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(total * percentile / 100.0);
+        long seen = 0;
+        for (int millis = 0; millis < latencyHistogram.length(); millis++) {
+            seen += latencyHistogram.get(millis);
+            if (seen >= rank) {
+                return millis;
+            }
+        }
+        return MAX_TRACKED_MILLIS;
+    }
+}
@@ -0,0 +1,165 @@
+package searchengine.services;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import searchengine.config.SitesList;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Общий для всех сайтов пул обхода: число потоков (и соединений) ограничено maxConcurrency
+// независимо от количества сайтов, а потоки распределяются между сайтами по их долям
+@Component
+public class CrawlScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(CrawlScheduler.class);
+
+    private final int maxConcurrency;
+    private final ExecutorService workers;
+    private final Object lock = new Object();
+    private final List<SiteQueue> queues = new ArrayList<>(); // Сайты с незавершённым обходом
+    private int cursor; // Позиция кругового обхода очередей
+
+    public CrawlScheduler(SitesList sitesList) {
+        int configured = sitesList.getMaxConcurrency();
+        this.maxConcurrency = configured > 0 ? configured : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(maxConcurrency, runnable -> {
+            Thread thread = new Thread(runnable, "crawler-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < maxConcurrency; i++) {
+            workers.execute(this::workLoop);
+        }
+        logger.info("Планировщик обхода запущен, потоков: {}", maxConcurrency);
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    // share — сколько потоков положено сайту (0 — поровну между всеми обходимыми сайтами)
+    public SiteQueue register(String name, int share) {
+        SiteQueue queue = new SiteQueue(name, share);
+        synchronized (lock) {
+            queues.add(queue);
+        }
+        return queue;
+    }
+
+    private void workLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            SiteQueue queue;
+            Runnable task;
+            synchronized (lock) {
+                try {
+                    while ((queue = nextQueue()) == null) {
+                        lock.wait();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                task = queue.tasks.poll();
+                queue.running++;
+            }
+
+            try {
+                task.run();
+            } catch (Throwable e) {
+                // Поток не должен завершаться из-за одной задачи: иначе пул уменьшится, а обход сайта не завершится
+                logger.error("Ошибка в задаче обхода сайта {}: {}", queue.name, e.getMessage(), e);
+            } finally {
+                finishTask(queue);
+            }
+        }
+    }
+
+    private void finishTask(SiteQueue queue) {
+        boolean finished;
+        synchronized (lock) {
+            queue.running--;
+            finished = --queue.pending == 0;
+            if (finished) {
+                queues.remove(queue);
+            }
+        }
+        if (finished) {
+            queue.completion.complete(null); // Вне блокировки: продолжения могут работать с базой данных
+        }
+    }
+
+    // Сначала по кругу сайты, не выбравшие свою долю; если таких нет, свободный поток
+    // забирает работу у сайта, который сильнее всего недогружен относительно доли
+    private SiteQueue nextQueue() {
+        int size = queues.size();
+        if (size == 0) {
+            return null;
+        }
+        int fairShare = Math.max(1, (maxConcurrency + size - 1) / size);
+        for (int i = 0; i < size; i++) {
+            int index = (cursor + i) % size;
+            SiteQueue queue = queues.get(index);
+            if (!queue.tasks.isEmpty() && queue.running < queue.budget(fairShare)) {
+                cursor = (index + 1) % size;
+                return queue;
+            }
+        }
+
+        SiteQueue idlest = null;
+        double idlestLoad = Double.MAX_VALUE;
+        for (SiteQueue queue : queues) {
+            double load = (double) queue.running / queue.budget(fairShare);
+            if (!queue.tasks.isEmpty() && load < idlestLoad) {
+                idlest = queue;
+                idlestLoad = load;
+            }
+        }
+        return idlest;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    public final class SiteQueue {
+        private final String name;
+        private final int share;
+        private final Deque<Runnable> tasks = new ArrayDeque<>();
+        private final CompletableFuture<Void> completion = new CompletableFuture<>();
+        private int running;
+        private int pending; // Задачи в очереди и выполняющиеся
+
+        private SiteQueue(String name, int share) {
+            this.name = name;
+            this.share = share;
+        }
+
+        public void submit(Runnable task) {
+            synchronized (lock) {
+                tasks.add(task);
+                pending++;
+                lock.notify();
+            }
+        }
+
+        // Завершается, когда выполнены все задачи сайта, включая порождённые ими
+        public CompletableFuture<Void> completion() {
+            return completion;
+        }
+
+        private int budget(int fairShare) {
+            return share > 0 ? Math.min(share, maxConcurrency) : fairShare;
+        }
+    }
+}
@@ -2,19 +2,19 @@ package searchengine.services;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 import searchengine.config.SitesList;
+import searchengine.model.LiveSite;
 import searchengine.model.Site;
 import searchengine.model.Status;
-import searchengine.repositories.PageRepository;
+import searchengine.repositories.LiveSiteRepository;
 import searchengine.repositories.SiteRepository;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 @Service
@@ -25,14 +25,17 @@ public class IndexingService {
     private final AtomicBoolean isIndexing = new AtomicBoolean(false);
     private final SitesList sitesList;
     private final SiteRepository siteRepository;
-    private final PageRepository pageRepository;
+    private final LiveSiteRepository liveSiteRepository;
     private final PageCrawlerService pageCrawlerService;
+    private final SiteGenerationCleaner siteGenerationCleaner;
 
-    public IndexingService(SitesList sitesList, SiteRepository siteRepository, PageRepository pageRepository, PageCrawlerService pageCrawlerService) {
+    public IndexingService(SitesList sitesList, SiteRepository siteRepository, LiveSiteRepository liveSiteRepository,
+                           PageCrawlerService pageCrawlerService, SiteGenerationCleaner siteGenerationCleaner) {
         this.sitesList = sitesList;
         this.siteRepository = siteRepository;
-        this.pageRepository = pageRepository;
+        this.liveSiteRepository = liveSiteRepository;
         this.pageCrawlerService = pageCrawlerService;
+        this.siteGenerationCleaner = siteGenerationCleaner;
     }
 
     public boolean isIndexing() {
@@ -53,7 +56,8 @@ public class IndexingService {
         return true;
     }
 
-    @Transactional
+    // Без общей транзакции: запись нового поколения должна быть зафиксирована до того,
+    // как потоки обхода начнут сохранять ссылающиеся на неё страницы
     public void performIndexing() {
         String sessionId = UUID.randomUUID().toString();
         try {
@@ -72,55 +76,79 @@ public class IndexingService {
         }
     }
 
-    @Async
+    // Обход ведёт общий планировщик, поэтому на сайт не тратится отдельный ожидающий поток
     private CompletableFuture<Void> processSingleSiteAsync(searchengine.config.Site siteConfig) {
-        return CompletableFuture.runAsync(() -> processSingleSite(siteConfig));
-    }
-
-    private void processSingleSite(searchengine.config.Site siteConfig) {
+        Site site;
         try {
             logger.info("Обработка сайта: {}", siteConfig.getUrl());
-            int deletedPages = deleteSiteData(siteConfig.getUrl());
-            logger.info("Удалено старых страниц: {}", deletedPages);
-            Site site = createSiteEntry(siteConfig.getName(), siteConfig.getUrl());
-            logger.info("Создана новая запись сайта: {}", site.getUrl());
-            pageCrawlerService.crawl(site); // Метод crawl больше не возвращает int
-            int indexedPages = pageCrawlerService.getVisitedCount(); // Новый метод для получения количества страниц
-            logger.info("Проиндексировано страниц: {}", indexedPages);
-            site.setStatus(Status.INDEXED);
-            site.setStatusTime(LocalDateTime.now());
-            siteRepository.save(site);
+            removeStaleGenerations(siteConfig.getUrl());
+            // Новое поколение строится рядом с действующим, поиск до переключения читает старые данные
+            site = createSiteEntry(siteConfig.getName(), siteConfig.getUrl());
+            logger.info("Создано поколение {} сайта: {}", site.getGeneration(), site.getUrl());
         } catch (Exception e) {
             logger.error("Ошибка при обработке сайта {}: {}", siteConfig.getUrl(), e.getMessage(), e);
-            handleFailedSite(siteConfig.getUrl(), e.getMessage());
+            return CompletableFuture.completedFuture(null);
         }
+
+        return pageCrawlerService.crawlAsync(site, siteConfig.getConcurrency())
+                .thenAccept(indexedPages -> completeSite(site, indexedPages))
+                .exceptionally(e -> {
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    logger.error("Ошибка при обработке сайта {}: {}", siteConfig.getUrl(), cause.getMessage(), cause);
+                    handleFailedSite(site, cause.getMessage());
+                    return null;
+                });
     }
 
+    private void completeSite(Site site, int indexedPages) {
+        logger.info("Сохранено страниц сайта {}: {}", site.getUrl(), indexedPages);
+        site.setStatus(Status.INDEXED);
+        site.setStatusTime(LocalDateTime.now());
+        siteRepository.save(site);
+        Site previous = switchLiveGeneration(site);
+        if (previous != null) {
+            siteGenerationCleaner.scheduleRemoval(previous);
+        }
+    }
+
+    // Удаляет поколения, оставшиеся от неудачных или прерванных переиндексаций
+    private void removeStaleGenerations(String siteUrl) {
+        Site live = siteRepository.findLiveByUrl(siteUrl);
+        for (Site site : siteRepository.findAllByUrl(siteUrl)) {
+            if (live == null && site.getStatus() == Status.INDEXED) {
+                // Данные, проиндексированные до появления указателя, считаем действующими
+                liveSiteRepository.save(new LiveSite(siteUrl, site));
+                live = site;
+            } else if (live == null || !live.getId().equals(site.getId())) {
+                siteGenerationCleaner.scheduleRemoval(site);
+            }
+        }
+    }
 
-    @Transactional
-    private int deleteSiteData(String siteUrl) {
-        Site site = siteRepository.findByUrl(siteUrl);
-        if (site == null) {
-            logger.warn("Сайт не найден в базе данных: {}", siteUrl);
-            return 0;
+    // Атомарно переключает указатель на новое поколение и возвращает предыдущее
+    private Site switchLiveGeneration(Site site) {
+        Site previous = siteRepository.findLiveByUrl(site.getUrl());
+        if (previous == null) {
+            liveSiteRepository.save(new LiveSite(site.getUrl(), site));
+        } else {
+            liveSiteRepository.switchTo(site.getUrl(), site);
         }
-        int deletedPages = pageRepository.deleteAllBySiteId(site.getId());
-        siteRepository.deleteById(site.getId());
-        logger.info("Удалена запись сайта: {} и связанных страниц: {}", siteUrl, deletedPages);
-        return deletedPages;
+        logger.info("Поколение {} сайта {} стало действующим", site.getGeneration(), site.getUrl());
+        return previous;
     }
 
     private Site createSiteEntry(String name, String url) {
         Site site = new Site();
         site.setName(name);
         site.setUrl(url);
+        site.setGeneration(siteRepository.findMaxGeneration(url) + 1);
         site.setStatus(Status.INDEXING);
         site.setStatusTime(LocalDateTime.now());
         return siteRepository.save(site);
     }
 
-    private void handleFailedSite(String url, String errorMessage) {
-        Site site = siteRepository.findByUrl(url);
+    private void handleFailedSite(Site site, String errorMessage) {
+        // Действующее поколение не трогаем: поиск продолжает работать по прежним данным
         if (site != null) {
             site.setStatus(Status.FAILED);
             site.setLastError(errorMessage);
@@ -128,4 +156,4 @@ public class IndexingService {
             siteRepository.save(site);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,55 @@
+package searchengine.services;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Индекс отпечатков SimHash одного сайта. Отпечаток делится на 8 полос по 8 бит:
+ * если два отпечатка отличаются не более чем в 7 битах, хотя бы одна полоса
+ * у них совпадает, поэтому кандидатов достаточно искать по совпадению полос.
+ * Варианты страницы с параметрами сортировки обычно отличаются на 0–7 бит,
+ * разные страницы — примерно на 32.
+ */
+class NearDuplicateIndex {
+
+    static final int BANDS = 8;
+    static final int BAND_BITS = 64 / BANDS;
+    static final int MAX_DISTANCE = BANDS - 1; // Число полос на единицу больше порога — иначе совпадение полосы не гарантировано
+    private static final long BAND_MASK = (1L << BAND_BITS) - 1;
+
+    private final Map<Long, List<Entry>> buckets = new HashMap<>();
+
+    /**
+     * Возвращает URL ранее сохранённой почти-копии либо регистрирует отпечаток
+     * и возвращает {@code null}, если похожих страниц ещё не было.
+     */
+    synchronized String findOrAdd(String url, long fingerprint) {
+        for (int band = 0; band < BANDS; band++) {
+            List<Entry> bucket = buckets.get(bucketKey(band, fingerprint));
+            if (bucket == null) {
+                continue;
+            }
+            for (Entry entry : bucket) {
+                if (SimHash.hammingDistance(entry.fingerprint(), fingerprint) <= MAX_DISTANCE) {
+                    return entry.url();
+                }
+            }
+        }
+
+        Entry entry = new Entry(fingerprint, url);
+        for (int band = 0; band < BANDS; band++) {
+            buckets.computeIfAbsent(bucketKey(band, fingerprint), key -> new ArrayList<>()).add(entry);
+        }
+        return null;
+    }
+
+    private static long bucketKey(int band, long fingerprint) {
+        long value = (fingerprint >>> (band * BAND_BITS)) & BAND_MASK;
+        return ((long) band << BAND_BITS) | value;
+    }
+
+    private record Entry(long fingerprint, String url) {
+    }
+}
@@ -3,100 +3,140 @@ package searchengine.services;
 import org.jsoup.Connection;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
 import org.jsoup.select.Elements;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import searchengine.config.SitesList;
 import searchengine.model.Page;
 import searchengine.model.Site;
 import searchengine.repositories.PageRepository;
 import searchengine.repositories.SiteRepository;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
 import java.util.Set;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 public class PageCrawlerService {
 
     private static final Logger logger = LoggerFactory.getLogger(PageCrawlerService.class);
-    private static final int MAX_THREADS = Runtime.getRuntime().availableProcessors();
     private static final int MAX_DEPTH = 10;
 
     private final PageRepository pageRepository;
     private final SiteRepository siteRepository;
-    private final ExecutorService executorService = Executors.newFixedThreadPool(MAX_THREADS);
-    private final Set<String> visitedUrls = ConcurrentHashMap.newKeySet();
-    private final Set<String> alreadyLogged = ConcurrentHashMap.newKeySet(); // Для логирования только один раз
+    private final SitesList sitesList;
+    private final CrawlMetrics crawlMetrics;
+    private final CrawlScheduler crawlScheduler;
+    private final Map<Integer, CrawlSession> sessions = new ConcurrentHashMap<>(); // Состояние обхода по сайтам
 
     private static final String FAKE_USER_AGENT = "Mozilla/5.0 (Windows; U; WindowsNT 5.1; en-US; rv1.8.1.6) Gecko/20070725 Firefox/2.0.0.6";
     private static final String FAKE_REFERRER = "http://www.google.com";
-
-    public PageCrawlerService(PageRepository pageRepository, SiteRepository siteRepository) {
+    // Основное содержимое страницы и повторяющиеся на всех страницах блоки (меню, шапка, подвал)
+    private static final String MAIN_CONTENT_SELECTOR = "main, article, [role=main]";
+    private static final String BOILERPLATE_SELECTOR = "nav, header, footer, aside, script, style, noscript, form, "
+            + "[role=navigation], [role=banner], [role=contentinfo], "
+            + ".menu, .nav, .navbar, .header, .footer, .sidebar, .breadcrumb, .breadcrumbs, "
+            + "#menu, #nav, #header, #footer, #sidebar";
+
+    public PageCrawlerService(PageRepository pageRepository, SiteRepository siteRepository,
+                              SitesList sitesList, CrawlMetrics crawlMetrics, CrawlScheduler crawlScheduler) {
         this.pageRepository = pageRepository;
         this.siteRepository = siteRepository;
+        this.sitesList = sitesList;
+        this.crawlMetrics = crawlMetrics;
+        this.crawlScheduler = crawlScheduler;
     }
 
-    public void crawlAll(List<Site> sites) {
-        List<Future<?>> futures = new ArrayList<>();
-        for (Site site : sites) {
-            futures.add(executorService.submit(() -> crawl(site)));
-        }
-        for (Future<?> future : futures) {
-            try {
-                future.get();
-            } catch (InterruptedException | ExecutionException e) {
-                logger.error("Ошибка при выполнении обхода сайта: {}", e.getMessage());
-            }
-        }
-        executorService.shutdown();
-    }
-
-    public int crawl(Site site) {
+    // Обход выполняется общим планировщиком; concurrency — доля потоков сайта (0 — поровну между сайтами)
+    public CompletableFuture<Integer> crawlAsync(Site site, int concurrency) {
         logger.info("🌐 Начало индексации сайта: {}", site.getUrl());
-        visitedUrls.clear();
-        alreadyLogged.clear();
-        ForkJoinPool forkJoinPool = new ForkJoinPool(MAX_THREADS);
-        CrawlTask rootTask = new CrawlTask(site.getUrl(), site, 0);
-        forkJoinPool.invoke(rootTask);
-        logger.info("✅ Индексация завершена. Всего уникальных ресурсов сохранено: {}", visitedUrls.size());
-        return visitedUrls.size(); // Возврат количества страниц
+        CrawlSession session = new CrawlSession(crawlScheduler.register(site.getUrl(), concurrency));
+        sessions.put(site.getId(), session);
+        session.submit(new CrawlTask(site.getUrl(), site, 0));
+        return session.queue.completion()
+                .whenComplete((ignored, error) -> sessions.remove(site.getId()))
+                .thenApply(ignored -> {
+                    // Неудачный обход не должен подменить действующее поколение сайта
+                    if (session.rootError != null) {
+                        throw new IllegalStateException("Ошибка индексации: главная страница сайта не доступна ("
+                                + session.rootError + ")");
+                    }
+                    if (session.savedPages.get() == 0) {
+                        throw new IllegalStateException("Ошибка индексации: не сохранено ни одной страницы сайта");
+                    }
+                    // visitedUrls включает пропущенные дубликаты, ошибки и цели редиректов — считаем только сохранённое
+                    logger.info("✅ Индексация завершена. Сохранено ресурсов: {}, пропущено почти-дубликатов: {}, посещено URL: {}",
+                            session.savedPages.get(), session.nearDuplicates.get(), session.visitedUrls.size());
+                    return session.savedPages.get(); // Возврат количества сохранённых страниц
+                });
     }
 
-    public int getVisitedCount() {
-        return visitedUrls.size();
+    private static class CrawlSession {
+        private final CrawlScheduler.SiteQueue queue;
+        private final Set<String> visitedUrls = ConcurrentHashMap.newKeySet();
+        private final Set<String> alreadyLogged = ConcurrentHashMap.newKeySet(); // Для логирования только один раз
+        private final NearDuplicateIndex nearDuplicateIndex = new NearDuplicateIndex();
+        private final AtomicInteger nearDuplicates = new AtomicInteger(); // Для контроля ложных срабатываний
+        private final AtomicInteger savedPages = new AtomicInteger(); // Успешно загруженные и сохранённые ресурсы
+        private volatile String rootError; // Причина, по которой не удалось загрузить главную страницу
+
+        CrawlSession(CrawlScheduler.SiteQueue queue) {
+            this.queue = queue;
+        }
+
+        void submit(CrawlTask task) {
+            queue.submit(task);
+        }
     }
 
-    private class CrawlTask extends RecursiveAction {
+    private class CrawlTask implements Runnable {
         private final String url;
         private final Site site;
+        private final CrawlSession session;
         private final int depth;
 
         public CrawlTask(String url, Site site, int depth) {
             this.url = normalizeUrl(url);
             this.site = site;
+            this.session = sessions.get(site.getId());
             this.depth = depth;
         }
 
         @Override
-        protected void compute() {
+        public void run() {
             if (depth > MAX_DEPTH) {
                 logger.debug("⏭ Пропуск URL: достигнута максимальная глубина ({}) для {}", MAX_DEPTH, url);
                 return;
             }
-            if (visitedUrls.contains(url)) {
-                logger.debug("⏭ Пропуск URL: уже посещён {}", url);
-                return;
-            }
             if (!url.startsWith(site.getUrl())) {
                 logger.debug("⏭ Пропуск URL: внешний ресурс {}", url);
                 return;
             }
+            if (!session.visitedUrls.add(url)) {
+                logger.debug("⏭ Пропуск URL: уже посещён {}", url);
+                return;
+            }
 
-            visitedUrls.add(url);
+            // Задержка перед следующим запросом (не входит в замер задержки)
+            try {
+                int minDelay = sitesList.getCrawlDelayMin();
+                int maxDelay = Math.max(minDelay, sitesList.getCrawlDelayMax());
+                long delay = ThreadLocalRandom.current().nextLong(minDelay, maxDelay + 1L);
+                if (delay > 0) {
+                    Thread.sleep(delay);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                logger.warn("Обход прерван: {}", e.getMessage());
+                return;
+            }
 
+            long fetchStartedAt = System.nanoTime();
             try {
                 Connection.Response response = Jsoup.connect(url)
                         .userAgent(FAKE_USER_AGENT)
@@ -106,28 +146,22 @@ public class PageCrawlerService {
                         .followRedirects(true)
                         .execute();
 
-                processResponse(site, url, response, depth);
+                processResponse(site, url, response, depth, fetchStartedAt);
             } catch (IOException e) {
+                if (depth == 0) {
+                    session.rootError = e.getMessage();
+                }
                 logAndSaveErrorPage(site, url, e.getMessage());
             }
         }
 
-        private void processResponse(Site site, String url, Connection.Response response, int depth) throws IOException {
-            // Задержка перед обработкой следующего запроса
-            try {
-                long delay = (long) (Math.random() * 4500 + 500); // Задержка от 500 мс до 5 секунд
-                Thread.sleep(delay);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                logger.warn("Обход прерван: {}", e.getMessage());
-                return;
-            }
-
+        private void processResponse(Site site, String url, Connection.Response response, int depth,
+                                     long fetchStartedAt) throws IOException {
             String contentType = response.contentType();
             String finalUrl = normalizeUrl(response.url().toString());
 
             if (!finalUrl.equals(url)) {
-                visitedUrls.add(finalUrl);
+                session.visitedUrls.add(finalUrl);
             }
 
             if (contentType == null) {
@@ -137,31 +171,46 @@ public class PageCrawlerService {
 
             if (contentType.startsWith("text/")) {
                 Document document = response.parse();
-                savePage(site, finalUrl, response.statusCode(), document.html());
+                String duplicateOf = findNearDuplicate(site, finalUrl, document);
+                if (duplicateOf != null) {
+                    // Зеркала и варианты с параметрами сортировки/фильтров не сохраняем и не обходим их ссылки
+                    logger.info("♊ Пропуск почти-дубликата: {} (совпадает с {})", url, duplicateOf);
+                    return;
+                }
+                if (savePage(site, finalUrl, response.statusCode(), document.html())) {
+                    onPageSaved(fetchStartedAt);
+                }
                 logger.info("📄 Проиндексирована страница: {}", url);
 
                 Elements links = document.select("a[href]");
-                List<CrawlTask> tasks = new ArrayList<>();
                 for (var link : links) {
                     String nextUrl = normalizeUrl(link.absUrl("href"));
                     if (nextUrl.startsWith("tel:")) {
                         processPhoneNumber(site, nextUrl);
-                    } else if (!visitedUrls.contains(nextUrl)) {
-                        tasks.add(new CrawlTask(nextUrl, site, depth + 1));
+                    } else if (!session.visitedUrls.contains(nextUrl)) {
+                        session.submit(new CrawlTask(nextUrl, site, depth + 1)); // Ссылки обходятся планировщиком, без ожидания
                     }
                 }
-                invokeAll(tasks);
             } else if (contentType.startsWith("image/")) {
-                savePage(site, finalUrl, response.statusCode(), "Изображение типа " + contentType);
+                if (savePage(site, finalUrl, response.statusCode(), "Изображение типа " + contentType)) {
+                    onPageSaved(fetchStartedAt);
+                }
                 logger.info("🖼️ Проиндексировано изображение: {}", url);
             } else if (isSupportedFileType(contentType)) {
-                savePage(site, finalUrl, response.statusCode(), "Файл типа " + contentType);
+                if (savePage(site, finalUrl, response.statusCode(), "Файл типа " + contentType)) {
+                    onPageSaved(fetchStartedAt);
+                }
                 logger.info("📁 Проиндексирован файл: {}", url);
             } else {
                 logger.info("⏭ Пропуск файла с неподдерживаемым типом: {}", contentType);
             }
         }
 
+        private void onPageSaved(long fetchStartedAt) {
+            session.savedPages.incrementAndGet();
+            crawlMetrics.recordPersisted(fetchStartedAt);
+        }
+
         private boolean isSupportedFileType(String contentType) {
             return contentType.equals("application/pdf") ||
                     contentType.equals("application/msword") ||
@@ -171,12 +220,42 @@ public class PageCrawlerService {
         }
     }
 
+    private String findNearDuplicate(Site site, String url, Document document) {
+        CrawlSession session = sessions.get(site.getId());
+        if (session == null) {
+            return null;
+        }
+        OptionalLong fingerprint = SimHash.fingerprint(mainContentText(document));
+        if (fingerprint.isEmpty()) {
+            return null; // Слишком мало текста для надёжного сравнения
+        }
+        String duplicateOf = session.nearDuplicateIndex.findOrAdd(url, fingerprint.getAsLong());
+        if (duplicateOf != null) {
+            session.nearDuplicates.incrementAndGet();
+        }
+        return duplicateOf;
+    }
+
+    // Сравниваем только основное содержимое: общие меню и подвал иначе делают похожими разные страницы
+    private String mainContentText(Document document) {
+        Element root = document.selectFirst(MAIN_CONTENT_SELECTOR);
+        if (root == null) {
+            root = document.body();
+        }
+        if (root == null) {
+            return document.text();
+        }
+        Element content = root.clone();
+        content.select(BOILERPLATE_SELECTOR).remove();
+        return content.text();
+    }
+
     private boolean savePage(Site site, String url, int statusCode, String content) {
         String relativePath = calculateRelativePath(site, url);
 
         synchronized (this) {
             if (pageRepository.existsBySiteAndPath(site, relativePath)) {
-                logOnce("⏭ Пропуск: уже сохранено в базе данных: {}", url);
+                logOnce(site, "⏭ Пропуск: уже сохранено в базе данных: {}", url);
                 return false;
             }
 
@@ -202,7 +281,7 @@ public class PageCrawlerService {
         String content = "Телефонный номер: " + phoneNumber;
         synchronized (this) {
             if (pageRepository.existsBySiteAndPath(site, phoneUrl)) {
-                logOnce("⏭ Номер телефона уже сохранён: {}", phoneNumber);
+                logOnce(site, "⏭ Номер телефона уже сохранён: {}", phoneNumber);
                 return;
             }
             savePage(site, phoneUrl, 200, content);
@@ -242,8 +321,9 @@ public class PageCrawlerService {
         return url.replaceAll("/+$", "").toLowerCase();
     }
 
-    private void logOnce(String message, String detail) {
-        if (alreadyLogged.add(detail)) {
+    private void logOnce(Site site, String message, String detail) {
+        CrawlSession session = sessions.get(site.getId());
+        if (session == null || session.alreadyLogged.add(detail)) {
             logger.info(message, detail);
         }
     }
@@ -0,0 +1,73 @@
+package searchengine.services;
+
+import java.util.OptionalLong;
+
+/**
+ * 64-битный SimHash текста страницы. У почти одинаковых текстов отпечатки
+ * отличаются лишь в нескольких битах, поэтому близость страниц оценивается
+ * расстоянием Хэмминга между отпечатками.
+ */
+public final class SimHash {
+
+    private static final int SHINGLE_SIZE = 3; // Количество слов в шингле
+    static final int MIN_TOKENS = 10;  // Слишком короткие тексты не сравниваем
+
+    private SimHash() {
+    }
+
+    public static OptionalLong fingerprint(String text) {
+        if (text == null || text.isBlank()) {
+            return OptionalLong.empty();
+        }
+        String[] tokens = text.toLowerCase().split("[^\\p{L}\\p{N}]+");
+        int tokenCount = 0;
+        for (String token : tokens) {
+            if (!token.isEmpty()) {
+                tokens[tokenCount++] = token;
+            }
+        }
+        if (tokenCount < MIN_TOKENS) {
+            return OptionalLong.empty();
+        }
+
+        int[] weights = new int[64];
+        for (int i = 0; i + SHINGLE_SIZE <= tokenCount; i++) {
+            long hash = hashShingle(tokens, i);
+            for (int bit = 0; bit < 64; bit++) {
+                weights[bit] += ((hash >>> bit) & 1L) != 0 ? 1 : -1;
+            }
+        }
+
+        long fingerprint = 0L;
+        for (int bit = 0; bit < 64; bit++) {
+            if (weights[bit] > 0) {
+                fingerprint |= 1L << bit;
+            }
+        }
+        return OptionalLong.of(fingerprint);
+    }
+
+    public static int hammingDistance(long first, long second) {
+        return Long.bitCount(first ^ second);
+    }
+
+    // FNV-1a по символам шингла с финальным перемешиванием из MurmurHash3
+    private static long hashShingle(String[] tokens, int from) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = from; i < from + SHINGLE_SIZE; i++) {
+            String token = tokens[i];
+            for (int j = 0; j < token.length(); j++) {
+                hash ^= token.charAt(j);
+                hash *= 0x100000001b3L;
+            }
+            hash ^= ' ';
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
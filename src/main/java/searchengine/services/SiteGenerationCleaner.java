@@ -0,0 +1,75 @@
+package searchengine.services;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import searchengine.model.Site;
+import searchengine.repositories.PageRepository;
+import searchengine.repositories.SiteRepository;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Фоновое удаление устаревших поколений сайта небольшими порциями, чтобы не блокировать таблицу page
+@Service
+public class SiteGenerationCleaner {
+
+    private static final Logger logger = LoggerFactory.getLogger(SiteGenerationCleaner.class);
+    private static final int CHUNK_SIZE = 500;      // Страниц за одну транзакцию
+    private static final long CHUNK_PAUSE_MS = 200; // Пауза между порциями
+
+    private final PageRepository pageRepository;
+    private final SiteRepository siteRepository;
+    private final ExecutorService executorService = Executors.newSingleThreadExecutor();
+    private final Set<Integer> scheduled = ConcurrentHashMap.newKeySet(); // Поколения в очереди на удаление
+
+    public SiteGenerationCleaner(PageRepository pageRepository, SiteRepository siteRepository) {
+        this.pageRepository = pageRepository;
+        this.siteRepository = siteRepository;
+    }
+
+    public void scheduleRemoval(Site site) {
+        Integer siteId = site.getId();
+        if (!scheduled.add(siteId)) {
+            return;
+        }
+        String description = site.getUrl() + " (поколение " + site.getGeneration() + ")";
+        logger.info("🧹 Поколение поставлено в очередь на удаление: {}", description);
+        executorService.submit(() -> {
+            try {
+                removeGeneration(siteId, description);
+            } finally {
+                scheduled.remove(siteId);
+            }
+        });
+    }
+
+    private void removeGeneration(Integer siteId, String description) {
+        try {
+            long deletedPages = 0;
+            int deleted;
+            do {
+                deleted = pageRepository.deleteChunkBySiteId(siteId, CHUNK_SIZE);
+                deletedPages += deleted;
+                if (deleted > 0) {
+                    Thread.sleep(CHUNK_PAUSE_MS);
+                }
+            } while (deleted == CHUNK_SIZE);
+            siteRepository.deleteById(siteId);
+            logger.info("🧹 Удалено поколение {} и связанных страниц: {}", description, deletedPages);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Удаление поколения {} прервано, будет продолжено при следующей индексации", description);
+        } catch (Exception e) {
+            logger.error("Ошибка при удалении поколения {}: {}", description, e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executorService.shutdownNow();
+    }
+}
@@ -0,0 +1,85 @@
+package searchengine.loadtest;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import searchengine.config.Site;
+import searchengine.config.SitesList;
+import searchengine.services.CrawlMetrics;
+import searchengine.services.IndexingService;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Прогон полной индексации по синтетическим сайтам в отдельной схеме базы данных:
+// mvn test -Dtest=CrawlLoadTest -Dloadtest=true
+@SpringBootTest
+@ActiveProfiles("loadtest")
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+class CrawlLoadTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(CrawlLoadTest.class);
+
+    @Autowired
+    private LoadTestProperties properties;
+    @Autowired
+    private SitesList sitesList;
+    @Autowired
+    private IndexingService indexingService;
+    @Autowired
+    private CrawlMetrics crawlMetrics;
+
+    @Test
+    void crawlSyntheticSites() throws Exception {
+        List<SyntheticSiteServer> servers = new ArrayList<>();
+        try {
+            List<Site> sites = new ArrayList<>();
+            for (int i = 0; i < properties.getSites(); i++) {
+                SyntheticSiteServer server = new SyntheticSiteServer(
+                        properties, properties.getSeed() + i, properties.getBasePort() + i);
+                servers.add(server);
+                Site site = new Site();
+                site.setName("Synthetic-" + i);
+                site.setUrl(server.getUrl());
+                sites.add(site);
+            }
+            sitesList.setSites(sites);
+
+            crawlMetrics.enable();
+            List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                    .filter(pool -> pool.getType() == MemoryType.HEAP)
+                    .toList();
+            heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+
+            long startedAt = System.nanoTime();
+            assertTrue(indexingService.startIndexing(), "Индексация уже выполняется");
+            indexingService.performIndexing();
+            double seconds = (System.nanoTime() - startedAt) / 1_000_000_000.0;
+
+            // Сумма пиков по пулам — верхняя оценка пикового размера кучи
+            long peakHeap = heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+            long requests = servers.stream().mapToLong(SyntheticSiteServer::getRequestCount).sum();
+            long persisted = crawlMetrics.getPersistedPages();
+
+            logger.info("=== РЕЗУЛЬТАТЫ НАГРУЗОЧНОГО ТЕСТА (зерно: {}, сайтов: {}, страниц на сайт: {}, граф: {}) ===",
+                    properties.getSeed(), properties.getSites(), properties.getPages(), properties.getGraphShape());
+            logger.info("Время: {} с, HTTP-запросов: {}, сохранено страниц: {}",
+                    String.format("%.2f", seconds), requests, persisted);
+            logger.info("Страниц в секунду: {}", String.format("%.2f", persisted / seconds));
+            logger.info("Задержка загрузка→сохранение: p50 = {} мс, p99 = {} мс",
+                    crawlMetrics.latencyPercentileMillis(50), crawlMetrics.latencyPercentileMillis(99));
+            logger.info("Пиковый размер кучи: {} МБ", peakHeap / (1024 * 1024));
+        } finally {
+            servers.forEach(SyntheticSiteServer::close);
+        }
+    }
+}
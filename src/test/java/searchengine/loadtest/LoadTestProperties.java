@@ -0,0 +1,33 @@
+package searchengine.loadtest;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+@Getter
+@Setter
+@Component
+@Profile("loadtest")
+@ConfigurationProperties(prefix = "load-test")
+public class LoadTestProperties {
+    private long seed = 42;
+    private int sites = 1;                 // Количество синтетических сайтов, каждый на своём порту
+    private int basePort = 18080;          // Сайт i слушает порт basePort + i, чтобы URL совпадали между прогонами
+    private int pages = 1000;              // Страниц на сайте
+    private GraphShape graphShape = GraphShape.RANDOM;
+    private int fanout = 8;                // Ссылок со страницы (для TREE — число потомков)
+    private double duplicateRate = 0.1;    // Доля ссылок-вариантов с параметрами сортировки и фильтров
+    private double redirectRate = 0.05;    // Доля страниц, отвечающих редиректом
+    private double errorRate = 0.05;       // Доля страниц, отвечающих 404 или 500
+    private double binaryRate = 0.05;      // Доля страниц с картинкой или PDF
+    private int minLatency = 0;            // Искусственная задержка ответа, мс
+    private int maxLatency = 20;
+
+    public enum GraphShape {
+        RANDOM, // Случайные ссылки на любые страницы
+        TREE,   // Дерево: страница i ссылается на i * fanout + 1 .. i * fanout + fanout
+        CHAIN   // Цепочка: ссылка на следующую страницу и на главную (обход ограничен глубиной)
+    }
+}
@@ -0,0 +1,197 @@
+package searchengine.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+// Локальный HTTP-сервер, детерминированно генерирующий сайт по зерну
+public class SyntheticSiteServer implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SyntheticSiteServer.class);
+    private static final int SERVER_THREADS = 32;
+    private static final int PARAGRAPHS = 3;
+    private static final int WORDS_PER_PARAGRAPH = 60;
+    private static final String[] SYLLABLES = {
+            "ка", "ро", "ми", "ле", "ту", "на", "во", "ск", "ди", "па", "зе", "лю", "бо", "ги", "ре", "ша"
+    };
+    private static final String[] SORT_VARIANTS = {"?sort=price", "?sort=name&order=desc", "?filter=new", "?sessionid=abc123"};
+    private static final byte[] PNG_HEADER = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'};
+    private static final byte[] PDF_HEADER = "%PDF-1.4\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final LoadTestProperties properties;
+    private final long seed;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newFixedThreadPool(SERVER_THREADS);
+    private final AtomicLong requests = new AtomicLong();
+
+    public SyntheticSiteServer(LoadTestProperties properties, long seed, int port) throws IOException {
+        this.properties = properties;
+        this.seed = seed;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.server.createContext("/", this::handle);
+        this.server.setExecutor(executor);
+        this.server.start();
+        logger.info("🧪 Синтетический сайт запущен: {} (страниц: {}, зерно: {})", getUrl(), properties.getPages(), seed);
+    }
+
+    public String getUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        try (exchange) {
+            int pageId = parsePageId(exchange.getRequestURI().getPath());
+            if (pageId < 0 || pageId >= properties.getPages()) {
+                send(exchange, 404, "text/html; charset=utf-8", "Not found".getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+
+            SplittableRandom random = pageRandom(pageId);
+            simulateLatency(random);
+
+            double roll = random.nextDouble();
+            double errorBound = properties.getErrorRate();
+            double redirectBound = errorBound + properties.getRedirectRate();
+            double binaryBound = redirectBound + properties.getBinaryRate();
+            if (pageId == 0 || roll >= binaryBound) {
+                send(exchange, 200, "text/html; charset=utf-8", renderHtml(pageId, exchange.getRequestURI().getQuery(), random));
+            } else if (roll < errorBound) {
+                int status = random.nextBoolean() ? 404 : 500;
+                send(exchange, status, "text/html; charset=utf-8", ("Error " + status).getBytes(StandardCharsets.UTF_8));
+            } else if (roll < redirectBound) {
+                int target = random.nextInt(properties.getPages());
+                exchange.getResponseHeaders().set("Location", pagePath(target == pageId ? 0 : target));
+                exchange.sendResponseHeaders(302, -1);
+            } else if (random.nextBoolean()) {
+                send(exchange, 200, "image/png", binaryBody(PNG_HEADER, random));
+            } else {
+                send(exchange, 200, "application/pdf", binaryBody(PDF_HEADER, random));
+            }
+        }
+    }
+
+    private byte[] renderHtml(int pageId, String query, SplittableRandom random) {
+        StringBuilder html = new StringBuilder("<html><head><title>Страница ")
+                .append(pageId).append("</title></head><body>");
+        if (query != null) {
+            // Варианты страницы с параметрами отличаются лишь строкой о сортировке
+            html.append("<div>Параметры просмотра: ").append(query.replaceAll("[=&]", " ")).append("</div>");
+        }
+        for (int p = 0; p < PARAGRAPHS; p++) {
+            html.append("<p>");
+            for (int w = 0; w < WORDS_PER_PARAGRAPH; w++) {
+                html.append(word(random)).append(' ');
+            }
+            html.append("</p>");
+        }
+        for (int target : linkTargets(pageId, random)) {
+            String href = pagePath(target);
+            if (random.nextDouble() < properties.getDuplicateRate()) {
+                href += SORT_VARIANTS[random.nextInt(SORT_VARIANTS.length)];
+            }
+            html.append("<a href=\"").append(href).append("\">").append(target).append("</a> ");
+        }
+        html.append("</body></html>");
+        return html.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private int[] linkTargets(int pageId, SplittableRandom random) {
+        int pages = properties.getPages();
+        int fanout = properties.getFanout();
+        return switch (properties.getGraphShape()) {
+            case TREE -> IntStream.rangeClosed(1, fanout)
+                    .mapToLong(i -> (long) pageId * fanout + i)
+                    .filter(child -> child < pages)
+                    .mapToInt(child -> (int) child)
+                    .toArray();
+            case CHAIN -> pageId + 1 < pages ? new int[]{pageId + 1, 0} : new int[]{0};
+            case RANDOM -> random.ints(fanout, 0, pages).toArray();
+        };
+    }
+
+    private String word(SplittableRandom random) {
+        int length = 2 + random.nextInt(3);
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        }
+        return word.toString();
+    }
+
+    private byte[] binaryBody(byte[] header, SplittableRandom random) {
+        byte[] body = new byte[header.length + 1024 + random.nextInt(4096)];
+        System.arraycopy(header, 0, body, 0, header.length);
+        for (int i = header.length; i < body.length; i++) {
+            body[i] = (byte) random.nextInt(256);
+        }
+        return body;
+    }
+
+    private void simulateLatency(SplittableRandom random) {
+        int minLatency = properties.getMinLatency();
+        int maxLatency = Math.max(minLatency, properties.getMaxLatency());
+        int latency = minLatency + random.nextInt(maxLatency - minLatency + 1);
+        if (latency > 0) {
+            try {
+                Thread.sleep(latency);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // Содержимое страницы зависит только от зерна и номера, но не от порядка запросов
+    private SplittableRandom pageRandom(int pageId) {
+        return new SplittableRandom(seed * 1_000_003L + pageId);
+    }
+
+    private static String pagePath(int pageId) {
+        return pageId == 0 ? "/" : "/page/" + pageId;
+    }
+
+    private static int parsePageId(String path) {
+        String trimmed = path.replaceAll("/+$", "");
+        if (trimmed.isEmpty()) {
+            return 0;
+        }
+        if (!trimmed.startsWith("/page/")) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(trimmed.substring("/page/".length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
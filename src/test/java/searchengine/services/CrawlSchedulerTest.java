@@ -0,0 +1,156 @@
+package searchengine.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import searchengine.config.SitesList;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CrawlSchedulerTest {
+
+    private static final int MAX_CONCURRENCY = 4;
+
+    private CrawlScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        SitesList sitesList = new SitesList();
+        sitesList.setMaxConcurrency(MAX_CONCURRENCY);
+        scheduler = new CrawlScheduler(sitesList);
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    void completesAfterAllSpawnedTasks() throws Exception {
+        CrawlScheduler.SiteQueue queue = scheduler.register("site", 0);
+        AtomicInteger executed = new AtomicInteger();
+        queue.submit(new SpawningTask(queue, 0, 4, 3, executed));
+
+        queue.completion().get(10, TimeUnit.SECONDS);
+
+        assertEquals(1 + 3 + 9 + 27 + 81, executed.get());
+    }
+
+    @Test
+    void neverExceedsGlobalConcurrency() throws Exception {
+        ConcurrencyTracker tracker = new ConcurrencyTracker();
+        CrawlScheduler.SiteQueue first = scheduler.register("first", 0);
+        CrawlScheduler.SiteQueue second = scheduler.register("second", MAX_CONCURRENCY * 2);
+        CrawlScheduler.SiteQueue third = scheduler.register("third", 1);
+        for (CrawlScheduler.SiteQueue queue : new CrawlScheduler.SiteQueue[]{first, second, third}) {
+            for (int i = 0; i < 20; i++) {
+                queue.submit(tracker::run);
+            }
+        }
+
+        first.completion().get(10, TimeUnit.SECONDS);
+        second.completion().get(10, TimeUnit.SECONDS);
+        third.completion().get(10, TimeUnit.SECONDS);
+
+        assertTrue(tracker.max.get() <= MAX_CONCURRENCY, "Одновременно выполнялось задач: " + tracker.max.get());
+        assertEquals(MAX_CONCURRENCY, tracker.max.get());
+    }
+
+    @Test
+    void smallSiteIsServedWhileLargeSiteSaturatesPool() throws Exception {
+        CrawlScheduler.SiteQueue large = scheduler.register("large", 0);
+        AtomicInteger largeStarted = new AtomicInteger();
+        for (int i = 0; i < 100; i++) {
+            large.submit(() -> {
+                largeStarted.incrementAndGet();
+                sleepQuietly(50);
+            });
+        }
+        waitUntil(() -> largeStarted.get() >= MAX_CONCURRENCY);
+
+        // Все потоки заняты большим сайтом; первый освободившийся поток должен достаться малому
+        CrawlScheduler.SiteQueue small = scheduler.register("small", 0);
+        CountDownLatch smallDone = new CountDownLatch(1);
+        small.submit(smallDone::countDown);
+
+        assertTrue(smallDone.await(1, TimeUnit.SECONDS));
+        assertFalse(large.completion().isDone());
+        small.completion().get(5, TimeUnit.SECONDS);
+        large.completion().get(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void failingTaskDoesNotHangCompletion() throws Exception {
+        CrawlScheduler.SiteQueue queue = scheduler.register("site", 0);
+        AtomicInteger executed = new AtomicInteger();
+        queue.submit(() -> {
+            throw new IllegalStateException("сбой задачи");
+        });
+        queue.submit(() -> {
+            throw new AssertionError("сбой задачи");
+        });
+        queue.completion().get(10, TimeUnit.SECONDS);
+
+        // После ошибок все потоки пула продолжают работать
+        CrawlScheduler.SiteQueue next = scheduler.register("next", 0);
+        ConcurrencyTracker tracker = new ConcurrencyTracker();
+        for (int i = 0; i < 20; i++) {
+            next.submit(() -> {
+                executed.incrementAndGet();
+                tracker.run();
+            });
+        }
+        next.completion().get(10, TimeUnit.SECONDS);
+
+        assertEquals(20, executed.get());
+        assertEquals(MAX_CONCURRENCY, tracker.max.get());
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Условие не выполнилось за 5 секунд");
+            Thread.sleep(5);
+        }
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private record SpawningTask(CrawlScheduler.SiteQueue queue, int depth, int maxDepth, int children,
+                                AtomicInteger executed) implements Runnable {
+        @Override
+        public void run() {
+            executed.incrementAndGet();
+            if (depth < maxDepth) {
+                for (int i = 0; i < children; i++) {
+                    queue.submit(new SpawningTask(queue, depth + 1, maxDepth, children, executed));
+                }
+            }
+        }
+    }
+
+    // Считает задачи, выполняющиеся одновременно; задержка даёт всем потокам пересечься
+    private static class ConcurrencyTracker {
+        private final AtomicInteger current = new AtomicInteger();
+        private final AtomicInteger max = new AtomicInteger();
+
+        void run() {
+            max.accumulateAndGet(current.incrementAndGet(), Math::max);
+            sleepQuietly(20);
+            current.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package searchengine.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import searchengine.config.SitesList;
+import searchengine.model.LiveSite;
+import searchengine.model.Site;
+import searchengine.model.Status;
+import searchengine.repositories.LiveSiteRepository;
+import searchengine.repositories.SiteRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class IndexingServiceTest {
+
+    private static final String URL = "https://example.ru";
+
+    private SiteRepository siteRepository;
+    private LiveSiteRepository liveSiteRepository;
+    private PageCrawlerService pageCrawlerService;
+    private SiteGenerationCleaner siteGenerationCleaner;
+    private IndexingService indexingService;
+    private final AtomicInteger nextId = new AtomicInteger(100);
+
+    @BeforeEach
+    void setUp() {
+        siteRepository = mock(SiteRepository.class);
+        liveSiteRepository = mock(LiveSiteRepository.class);
+        pageCrawlerService = mock(PageCrawlerService.class);
+        siteGenerationCleaner = mock(SiteGenerationCleaner.class);
+
+        when(siteRepository.save(any(Site.class))).thenAnswer(invocation -> {
+            Site site = invocation.getArgument(0);
+            if (site.getId() == null) {
+                site.setId(nextId.incrementAndGet());
+            }
+            return site;
+        });
+        when(siteRepository.findAllByUrl(URL)).thenReturn(List.of());
+
+        searchengine.config.Site siteConfig = new searchengine.config.Site();
+        siteConfig.setUrl(URL);
+        siteConfig.setName("Example");
+        SitesList sitesList = new SitesList();
+        sitesList.setSites(List.of(siteConfig));
+
+        indexingService = new IndexingService(sitesList, siteRepository, liveSiteRepository,
+                pageCrawlerService, siteGenerationCleaner);
+    }
+
+    @Test
+    void firstSuccessfulGenerationInsertsPointer() {
+        crawlSucceeds();
+
+        Site created = runIndexing();
+
+        assertEquals(Status.INDEXED, created.getStatus());
+        assertEquals(1, created.getGeneration());
+        verify(liveSiteRepository).save(argThat(live -> live.getSite() == created && URL.equals(live.getUrl())));
+        verify(liveSiteRepository, never()).switchTo(anyString(), any());
+        verify(siteGenerationCleaner, never()).scheduleRemoval(any());
+    }
+
+    @Test
+    void successfulReindexSwitchesPointerByUpdateAndRemovesPrevious() {
+        Site live = generation(1, 1, Status.INDEXED);
+        when(siteRepository.findLiveByUrl(URL)).thenReturn(live);
+        when(siteRepository.findAllByUrl(URL)).thenReturn(List.of(live));
+        when(siteRepository.findMaxGeneration(URL)).thenReturn(1);
+        crawlSucceeds();
+
+        Site created = runIndexing();
+
+        assertEquals(Status.INDEXED, created.getStatus());
+        assertEquals(2, created.getGeneration());
+        verify(liveSiteRepository).switchTo(URL, created);
+        verify(liveSiteRepository, never()).save(any(LiveSite.class));
+        verify(siteGenerationCleaner).scheduleRemoval(live);
+    }
+
+    @Test
+    void failedAndInterruptedLeftoversAreRemovedButLiveGenerationKept() {
+        Site live = generation(1, 1, Status.INDEXED);
+        Site failed = generation(2, 2, Status.FAILED);
+        Site interrupted = generation(3, 3, Status.INDEXING);
+        when(siteRepository.findLiveByUrl(URL)).thenReturn(live);
+        when(siteRepository.findAllByUrl(URL)).thenReturn(List.of(live, failed, interrupted));
+        when(siteRepository.findMaxGeneration(URL)).thenReturn(3);
+        crawlSucceeds();
+
+        Site created = runIndexing();
+
+        assertEquals(4, created.getGeneration());
+        verify(siteGenerationCleaner).scheduleRemoval(failed);
+        verify(siteGenerationCleaner).scheduleRemoval(interrupted);
+        verify(siteGenerationCleaner).scheduleRemoval(live); // Только после переключения на новое поколение
+        verify(liveSiteRepository).switchTo(URL, created);
+    }
+
+    @Test
+    void indexedGenerationWithoutPointerIsAdoptedAsLive() {
+        Site legacy = generation(1, 0, Status.INDEXED);
+        Site leftover = generation(2, 0, Status.FAILED);
+        when(siteRepository.findAllByUrl(URL)).thenReturn(List.of(legacy, leftover));
+        crawlFails("Ошибка индексации: главная страница сайта не доступна (Status=500)");
+
+        Site created = runIndexing();
+
+        verify(liveSiteRepository).save(argThat(live -> live.getSite() == legacy));
+        verify(siteGenerationCleaner).scheduleRemoval(leftover);
+        verify(siteGenerationCleaner, never()).scheduleRemoval(legacy);
+        assertEquals(Status.FAILED, created.getStatus());
+        assertNotEquals(legacy.getId(), created.getId());
+    }
+
+    @Test
+    void unreachableRootPageKeepsPreviousGeneration() {
+        Site live = generation(1, 1, Status.INDEXED);
+        when(siteRepository.findLiveByUrl(URL)).thenReturn(live);
+        when(siteRepository.findAllByUrl(URL)).thenReturn(List.of(live));
+        when(siteRepository.findMaxGeneration(URL)).thenReturn(1);
+        crawlFails("Ошибка индексации: главная страница сайта не доступна (Status=503)");
+
+        Site created = runIndexing();
+
+        assertEquals(Status.FAILED, created.getStatus());
+        assertTrue(created.getLastError().contains("главная страница сайта не доступна"));
+        assertEquals(Status.INDEXED, live.getStatus());
+        verify(liveSiteRepository, never()).switchTo(anyString(), any());
+        verify(liveSiteRepository, never()).save(any(LiveSite.class));
+        verify(siteGenerationCleaner, never()).scheduleRemoval(any());
+        assertFalse(indexingService.isIndexing());
+    }
+
+    private Site runIndexing() {
+        assertTrue(indexingService.startIndexing());
+        indexingService.performIndexing();
+        ArgumentCaptor<Site> created = ArgumentCaptor.forClass(Site.class);
+        verify(pageCrawlerService).crawlAsync(created.capture(), eq(0));
+        return created.getValue();
+    }
+
+    private void crawlSucceeds() {
+        when(pageCrawlerService.crawlAsync(any(Site.class), anyInt())).thenReturn(CompletableFuture.completedFuture(10));
+    }
+
+    private void crawlFails(String message) {
+        when(pageCrawlerService.crawlAsync(any(Site.class), anyInt()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException(message)));
+    }
+
+    private static Site generation(int id, int generation, Status status) {
+        Site site = new Site();
+        site.setId(id);
+        site.setUrl(URL);
+        site.setName("Example");
+        site.setGeneration(generation);
+        site.setStatus(status);
+        site.setStatusTime(LocalDateTime.now());
+        return site;
+    }
+}
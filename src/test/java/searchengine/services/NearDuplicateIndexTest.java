@@ -0,0 +1,39 @@
+package searchengine.services;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class NearDuplicateIndexTest {
+
+    private static final long FINGERPRINT = 0x9E3779B97F4A7C15L;
+
+    @Test
+    void findsCandidateMatchingInOnlyOneBand() {
+        NearDuplicateIndex index = new NearDuplicateIndex();
+        assertNull(index.findOrAdd("/original", FINGERPRINT));
+
+        // По одному биту в каждой полосе, кроме последней: совпадает лишь одна полоса
+        long candidate = FINGERPRINT;
+        for (int band = 0; band < NearDuplicateIndex.BANDS - 1; band++) {
+            candidate ^= 1L << (band * NearDuplicateIndex.BAND_BITS);
+        }
+        assertEquals(NearDuplicateIndex.MAX_DISTANCE, SimHash.hammingDistance(FINGERPRINT, candidate));
+        assertEquals("/original", index.findOrAdd("/variant", candidate));
+    }
+
+    @Test
+    void ignoresCandidateBeyondThreshold() {
+        NearDuplicateIndex index = new NearDuplicateIndex();
+        index.findOrAdd("/original", FINGERPRINT);
+
+        // По одному биту в каждой полосе: ни одна полоса не совпадает
+        long candidate = FINGERPRINT;
+        for (int band = 0; band < NearDuplicateIndex.BANDS; band++) {
+            candidate ^= 1L << (band * NearDuplicateIndex.BAND_BITS);
+        }
+        assertNull(index.findOrAdd("/other", candidate));
+        assertEquals("/other", index.findOrAdd("/other-variant", candidate));
+    }
+}
@@ -0,0 +1,84 @@
+package searchengine.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SimHashTest {
+
+    private static final String[] SYLLABLES = {
+            "ка", "ро", "ми", "ле", "ту", "на", "во", "ск", "ди", "па", "зе", "лю", "бо", "ги", "ре", "ша"
+    };
+    private static final String[] SORT_VARIANTS = {"sort price", "sort name order desc", "filter new", "sessionid abc123"};
+    private static final int PAGES = 500;
+
+    @Test
+    void sortParameterVariantsAreDetectedByIndex() {
+        NearDuplicateIndex index = new NearDuplicateIndex();
+        int detected = 0;
+        for (int page = 0; page < PAGES; page++) {
+            String text = pageText(page);
+            String variant = "Параметры просмотра: " + SORT_VARIANTS[page % SORT_VARIANTS.length] + " " + text;
+            String url = "/page/" + page;
+            assertNull(index.findOrAdd(url, SimHash.fingerprint(text).getAsLong()), "Ложное совпадение для " + url);
+            String duplicateOf = index.findOrAdd(url + "?sort", SimHash.fingerprint(variant).getAsLong());
+            if (duplicateOf != null) {
+                assertEquals(url, duplicateOf);
+                detected++;
+            }
+        }
+        // При пороге 3 бита находилось лишь около двух третей вариантов
+        assertTrue(detected >= PAGES * 97 / 100, "Найдено вариантов: " + detected + " из " + PAGES);
+    }
+
+    @Test
+    void unrelatedPagesAreNotNearDuplicates() {
+        for (int page = 1; page < PAGES; page++) {
+            int distance = distance(pageText(page - 1), pageText(page));
+            assertTrue(distance > NearDuplicateIndex.MAX_DISTANCE * 2,
+                    "Страницы " + (page - 1) + " и " + page + " отличаются лишь на " + distance + " бит");
+        }
+    }
+
+    @Test
+    void shortTextsAreNotFingerprinted() {
+        String shortText = String.join(" ", Collections.nCopies(SimHash.MIN_TOKENS - 1, "слово"));
+        assertTrue(SimHash.fingerprint(shortText).isEmpty());
+        assertTrue(SimHash.fingerprint("  ,.;  ").isEmpty());
+        assertTrue(SimHash.fingerprint(null).isEmpty());
+        assertTrue(SimHash.fingerprint(shortText + " ещё").isPresent());
+    }
+
+    @Test
+    void fingerprintIsStable() {
+        String text = pageText(7);
+        assertEquals(SimHash.fingerprint(text).getAsLong(), SimHash.fingerprint(text).getAsLong());
+        assertEquals(0, distance(text, text.toUpperCase()));
+    }
+
+    private static int distance(String first, String second) {
+        return SimHash.hammingDistance(SimHash.fingerprint(first).getAsLong(), SimHash.fingerprint(second).getAsLong());
+    }
+
+    // Текст устроен как страница синтетического сайта: 180 слов и подписи ссылок
+    private static String pageText(int page) {
+        SplittableRandom random = new SplittableRandom(42L * 1_000_003L + page);
+        StringBuilder text = new StringBuilder("Страница ").append(page).append(' ');
+        for (int w = 0; w < 180; w++) {
+            int length = 2 + random.nextInt(3);
+            for (int i = 0; i < length; i++) {
+                text.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+            }
+            text.append(' ');
+        }
+        for (int link = 0; link < 8; link++) {
+            text.append(random.nextInt(2000)).append(' ');
+        }
+        return text.toString();
+    }
+}